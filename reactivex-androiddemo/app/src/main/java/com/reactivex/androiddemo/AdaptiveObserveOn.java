@@ -0,0 +1,260 @@
+package com.reactivex.androiddemo;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableOperator;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+
+/**
+ * observeOn for Flowables whose prefetch is resized at runtime instead of being fixed at {@link Flowable#bufferSize()}.
+ * <p>
+ * Like observeOn, upstream is asked for prefetch items up front and for more once three quarters of them
+ * have been consumed. At each of those points the prefetch is adjusted between the configured bounds by
+ * comparing how fast the producer fills the buffer with how fast the consumer drains it:
+ * <ul>
+ * <li>If everything requested had already arrived and was waiting in the buffer, the producer outpaces the
+ * consumer, as with a bulk load. The prefetch doubles, so the producer is asked for larger batches and
+ * fewer requests cross the boundary.</li>
+ * <li>If the consumer drained the buffer empty while it still wanted more, for several rounds in a row,
+ * the producer is a slow trickle. A large buffer would stay mostly empty and only hold memory, so the
+ * prefetch halves.</li>
+ * </ul>
+ * Every subscription starts at the initial prefetch and adapts on its own. {@link #getCurrentPrefetch()}
+ * reports the prefetch of whichever subscription resized last, so it is only meaningful with one subscriber.
+ * <p>
+ * The streams in MainActivity are Observables or carry only a few items, so nothing in the app uses this yet.
+ */
+public class AdaptiveObserveOn<T> implements FlowableTransformer<T, T> {
+
+    public static final int DEFAULT_MIN_PREFETCH = 16;
+    public static final int DEFAULT_MAX_PREFETCH = 1024;
+
+    // Rounds in a row with a drained buffer before the prefetch shrinks, so a single late item does not count
+    private static final int SHRINK_AFTER_STARVED_ROUNDS = 4;
+
+    private final Scheduler scheduler;
+    private final int minPrefetch;
+    private final int maxPrefetch;
+    private final int initialPrefetch;
+    private final AtomicInteger currentPrefetch;
+
+    public AdaptiveObserveOn(Scheduler scheduler) {
+        this(scheduler, DEFAULT_MIN_PREFETCH, DEFAULT_MAX_PREFETCH);
+    }
+
+    public AdaptiveObserveOn(Scheduler scheduler, int minPrefetch, int maxPrefetch) {
+        if (minPrefetch <= 0 || maxPrefetch < minPrefetch) {
+            throw new IllegalArgumentException("expected 0 < minPrefetch <= maxPrefetch");
+        }
+        this.scheduler = scheduler;
+        this.minPrefetch = minPrefetch;
+        this.maxPrefetch = maxPrefetch;
+        this.initialPrefetch = Math.max(minPrefetch, Math.min(maxPrefetch, Flowable.bufferSize()));
+        this.currentPrefetch = new AtomicInteger(initialPrefetch);
+    }
+
+    /**
+     * Prefetch of the most recently resized subscription.
+     */
+    public int getCurrentPrefetch() {
+        return currentPrefetch.get();
+    }
+
+    @Override
+    public Flowable<T> apply(Flowable<T> upstream) {
+        return upstream.lift(new FlowableOperator<T, T>() {
+            @Override
+            public Subscriber<? super T> apply(Subscriber<? super T> subscriber) throws Exception {
+                return new ObserveOnSubscriber(subscriber, scheduler.createWorker());
+            }
+        });
+    }
+
+    private final class ObserveOnSubscriber extends AtomicInteger implements FlowableSubscriber<T>, Subscription, Runnable {
+
+        private final Subscriber<? super T> downstream;
+        private final Scheduler.Worker worker;
+        // Linked chunks rather than one array, so the capacity can follow the prefetch. The queue is internal
+        // to RxJava and may change in a minor release, the only public alternatives allocate a node per item.
+        private final SpscLinkedArrayQueue<T> queue = new SpscLinkedArrayQueue<>(minPrefetch);
+        private final AtomicLong requested = new AtomicLong();
+
+        private Subscription upstream;
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private Throwable error;
+
+        // Only accessed from the drain loop once subscribed
+        private int prefetch;
+        private int limit;
+        private int consumed;
+        private int starvedRounds;
+        private boolean starved;
+
+        ObserveOnSubscriber(Subscriber<? super T> downstream, Scheduler.Worker worker) {
+            this.downstream = downstream;
+            this.worker = worker;
+            resize(initialPrefetch);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            upstream = s;
+            downstream.onSubscribe(this);
+            s.request(prefetch);
+        }
+
+        @Override
+        public void onNext(T v) {
+            if (done) {
+                return;
+            }
+            queue.offer(v);
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.cancel();
+                onError(new IllegalArgumentException("n > 0 required but it was " + n));
+                return;
+            }
+            for (;;) {
+                long current = requested.get();
+                long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                if (requested.compareAndSet(current, next)) {
+                    break;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                upstream.cancel();
+                worker.dispose();
+                if (getAndIncrement() == 0) {
+                    queue.clear();
+                }
+            }
+        }
+
+        private void schedule() {
+            if (getAndIncrement() == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0;
+                while (e != r) {
+                    boolean d = done;
+                    T v = queue.poll();
+                    boolean empty = v == null;
+                    if (checkTerminated(d, empty)) {
+                        return;
+                    }
+                    if (empty) {
+                        // The consumer wants more, and fewer than limit items were consumed since the last request, so upstream still has demand
+                        starved = true;
+                        break;
+                    }
+                    downstream.onNext(v);
+                    e++;
+                    if (++consumed == limit) {
+                        replenish();
+                    }
+                }
+                if (e == r && checkTerminated(done, queue.isEmpty())) {
+                    return;
+                }
+                if (e != 0 && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-e);
+                }
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private void replenish() {
+            int next = prefetch;
+            if (!starved) {
+                starvedRounds = 0;
+                if (queue.size() >= prefetch - consumed) {
+                    // All prefetch - consumed items in flight have arrived, upstream is waiting on the consumer
+                    next = Math.min(maxPrefetch, prefetch * 2);
+                }
+            } else if (++starvedRounds >= SHRINK_AFTER_STARVED_ROUNDS) {
+                starvedRounds = 0;
+                next = Math.max(minPrefetch, prefetch / 2);
+            }
+            starved = false;
+            // prefetch - consumed items are still in flight, top them up to the new prefetch
+            long toRequest = consumed + (next - prefetch);
+            if (next != prefetch) {
+                resize(next);
+                currentPrefetch.set(next);
+            }
+            consumed = 0;
+            if (toRequest > 0) {
+                upstream.request(toRequest);
+            }
+        }
+
+        private void resize(int prefetch) {
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+        }
+
+        private boolean checkTerminated(boolean d, boolean empty) {
+            if (cancelled) {
+                queue.clear();
+                return true;
+            }
+            if (d) {
+                Throwable e = error;
+                if (e != null) {
+                    queue.clear();
+                    downstream.onError(e);
+                    worker.dispose();
+                    return true;
+                } else if (empty) {
+                    downstream.onComplete();
+                    worker.dispose();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.reactivex.androiddemo;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Incremental age statistics for a group of students.
+ * <p>
+ * Ages are counted into a fixed size histogram, so the state does not grow with the number of students
+ * and two partial results (e.g. from different parallel rails) can be merged without losing precision.
+ */
+public class AgeStats {
+
+    // Ages above this value share the last histogram bucket when computing percentiles
+    static final int MAX_AGE = 127;
+
+    private final int[] histogram = new int[MAX_AGE + 1];
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    public void add(int age) {
+        histogram[Math.max(0, Math.min(MAX_AGE, age))]++;
+        count++;
+        sum += age;
+        min = Math.min(min, age);
+        max = Math.max(max, age);
+    }
+
+    public AgeStats merge(AgeStats other) {
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += other.histogram[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public int getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public int getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Nearest-rank percentile of the ages seen so far.
+     *
+     * @param percentile value between 0 and 100
+     */
+    public int getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int age = 0; age < histogram.length; age++) {
+            seen += histogram[age];
+            if (seen >= rank) {
+                return age;
+            }
+        }
+        return MAX_AGE;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "AgeStats of count-" + getCount()
+                + " min-" + getMin()
+                + " max-" + getMax()
+                + " mean-" + getMean()
+                + " p50-" + getPercentile(50)
+                + " p90-" + getPercentile(90);
+    }
+}
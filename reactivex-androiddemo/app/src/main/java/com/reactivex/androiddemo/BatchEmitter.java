@@ -0,0 +1,85 @@
+package com.reactivex.androiddemo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.ObservableEmitter;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Cancellable;
+
+/**
+ * Emitter handed to {@link BatchedObservable.OnSubscribe} sources.
+ * <p>
+ * Whole chunks can be pushed with {@link #emitBatch(List)}. Single items pushed with {@link #onNext(Object)}
+ * are collected until batchSize of them are pending, so existing per item loops get batched for free.
+ * Pending items are always flushed before a batch, completion or an error.
+ */
+public class BatchEmitter<T> {
+
+    private final ObservableEmitter<List<T>> emitter;
+    private final int batchSize;
+    private List<T> pending;
+
+    BatchEmitter(ObservableEmitter<List<T>> emitter, int batchSize) {
+        this.emitter = emitter;
+        this.batchSize = batchSize;
+    }
+
+    public void onNext(T item) {
+        if (pending == null) {
+            pending = new ArrayList<>(batchSize);
+        }
+        pending.add(item);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Emits the list as one element. The list must not be modified afterwards.
+     */
+    public void emitBatch(List<T> batch) {
+        flush();
+        if (!batch.isEmpty() && !emitter.isDisposed()) {
+            emitter.onNext(batch);
+        }
+    }
+
+    public void onError(Throwable error) {
+        flush();
+        emitter.onError(error);
+    }
+
+    public void onComplete() {
+        flush();
+        emitter.onComplete();
+    }
+
+    public boolean isDisposed() {
+        return emitter.isDisposed();
+    }
+
+    /**
+     * Same as {@link ObservableEmitter#setCancellable(Cancellable)}, e.g. to close a cursor when the subscription is disposed.
+     */
+    public void setCancellable(Cancellable cancellable) {
+        emitter.setCancellable(cancellable);
+    }
+
+    /**
+     * Same as {@link ObservableEmitter#setDisposable(Disposable)}.
+     */
+    public void setDisposable(Disposable disposable) {
+        emitter.setDisposable(disposable);
+    }
+
+    private void flush() {
+        if (pending != null) {
+            List<T> batch = pending;
+            pending = null;
+            if (!emitter.isDisposed()) {
+                emitter.onNext(batch);
+            }
+        }
+    }
+}
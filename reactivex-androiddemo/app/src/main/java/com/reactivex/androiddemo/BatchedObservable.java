@@ -0,0 +1,73 @@
+package com.reactivex.androiddemo;
+
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+
+/**
+ * Moves items across threads in chunks instead of one by one.
+ * <p>
+ * observeOn pays for a queue offer and a drain loop per element. With {@link #create(int, OnSubscribe)}
+ * the source emits lists, {@link #observeOnBatched(Scheduler)} moves each list across the thread
+ * boundary in a single hop and unrolls it again on the consumer thread:
+ * <pre>
+ * BatchedObservable.create(64, source)
+ *         .subscribeOn(Schedulers.io())
+ *         .compose(BatchedObservable.&lt;Student&gt;observeOnBatched(AndroidSchedulers.mainThread()))
+ * </pre>
+ */
+public final class BatchedObservable {
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private BatchedObservable() {
+    }
+
+    /**
+     * Same as {@link Observable#create(ObservableOnSubscribe)}, but the source gets a {@link BatchEmitter}.
+     */
+    public interface OnSubscribe<T> {
+        void subscribe(BatchEmitter<T> emitter) throws Exception;
+    }
+
+    public static <T> Observable<List<T>> create(OnSubscribe<T> source) {
+        return create(DEFAULT_BATCH_SIZE, source);
+    }
+
+    public static <T> Observable<List<T>> create(final int batchSize, final OnSubscribe<T> source) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        return Observable.create(new ObservableOnSubscribe<List<T>>() {
+            @Override
+            public void subscribe(ObservableEmitter<List<T>> emitter) throws Exception {
+                source.subscribe(new BatchEmitter<>(emitter, batchSize));
+            }
+        });
+    }
+
+    /**
+     * observeOn that takes batches and hands out their items one at a time on the given scheduler.
+     */
+    public static <T> ObservableTransformer<List<T>, T> observeOnBatched(final Scheduler scheduler) {
+        return new ObservableTransformer<List<T>, T>() {
+            @Override
+            public ObservableSource<T> apply(Observable<List<T>> upstream) {
+                return upstream
+                        .observeOn(scheduler)
+                        .flatMapIterable(new Function<List<T>, Iterable<T>>() {
+                            @Override
+                            public Iterable<T> apply(List<T> batch) throws Exception {
+                                return batch;
+                            }
+                        });
+            }
+        };
+    }
+}
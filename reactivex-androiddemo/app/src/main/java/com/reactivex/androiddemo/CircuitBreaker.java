@@ -0,0 +1,104 @@
+package com.reactivex.androiddemo;
+
+/**
+ * Stops calls to a failing dependency for a while instead of letting every caller wait for it to fail.
+ * <p>
+ * CLOSED lets every call through and counts consecutive failures. Once failureThreshold is reached it
+ * turns OPEN and rejects calls until openMillis have passed. Then it turns HALF_OPEN and lets a single
+ * probe call through: if the probe succeeds it closes again, otherwise it reopens.
+ * <p>
+ * Every admitted call gets a {@link Permit} that it hands back with its outcome. Only the permit of the
+ * current probe can move the breaker out of HALF_OPEN, so calls that started before the breaker opened
+ * cannot close it or let a second probe through when they finish late.
+ * <p>
+ * Time is passed in by the caller, so it can come from a TestScheduler.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Handed out by {@link #tryAcquire(long)} for every admitted call.
+     */
+    public static final class Permit {
+        private Permit() {
+        }
+    }
+
+    // Shared by all calls admitted while CLOSED, only probes get a permit of their own
+    private static final Permit CALL = new Permit();
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private Permit probe;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold <= 0 || openMillis < 0) {
+            throw new IllegalArgumentException("expected failureThreshold > 0 and openMillis >= 0");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * @return null if the call is rejected, otherwise a permit that must be passed to exactly one of
+     * onSuccess, onFailure or onCancel
+     */
+    public synchronized Permit tryAcquire(long now) {
+        switch (state) {
+            case CLOSED:
+                return CALL;
+            case OPEN:
+                if (now - openedAt < openMillis) {
+                    return null;
+                }
+                state = State.HALF_OPEN;
+                probe = new Permit();
+                return probe;
+            default:
+                if (probe != null) {
+                    return null;
+                }
+                probe = new Permit();
+                return probe;
+        }
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (state == State.CLOSED) {
+            failures = 0;
+        } else if (permit == probe) {
+            state = State.CLOSED;
+            failures = 0;
+            probe = null;
+        }
+    }
+
+    public synchronized void onFailure(Permit permit, long now) {
+        if (state == State.CLOSED ? ++failures >= failureThreshold : permit == probe) {
+            state = State.OPEN;
+            openedAt = now;
+            failures = 0;
+            probe = null;
+        }
+    }
+
+    /**
+     * The call was disposed before it finished, so it tells nothing about the dependency.
+     */
+    public synchronized void onCancel(Permit permit) {
+        if (permit == probe) {
+            probe = null;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
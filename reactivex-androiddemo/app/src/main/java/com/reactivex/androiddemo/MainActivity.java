@@ -14,11 +14,10 @@ import android.widget.TextView;
 import com.jakewharton.rxbinding2.view.RxView;
 import com.jakewharton.rxbinding2.widget.RxTextView;
 
-import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
-import io.reactivex.ObservableEmitter;
-import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.Observer;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
@@ -49,6 +48,13 @@ public class MainActivity<T> extends AppCompatActivity {
     // DisposableObserver class implements both Observer and Disposable interfaces.
     DisposableObserver disposableObserver;
 
+    // ResilientLoader guards every load of students, see executeResilientCreateOperator()
+    ResilientLoader<Student> studentLoader = new ResilientLoader<Student>()
+            .timeout(5, TimeUnit.SECONDS)
+            .retry(3, 200, 2000, TimeUnit.MILLISECONDS)
+            .circuitBreaker(5, 30, TimeUnit.SECONDS)
+            .bulkhead(2);
+
     // CompositeDisposable helps maintain a list of subscriptions in a pool and can dispose them all at once.
     CompositeDisposable compositeDisposable = new CompositeDisposable();
 
@@ -103,6 +109,10 @@ public class MainActivity<T> extends AppCompatActivity {
 
         executeCreateOperator();
 
+        executeBatchedCreateOperator();
+
+        executeResilientCreateOperator();
+
         executeMapOperator();
 
         executeFlatmapOperator();
@@ -114,6 +124,8 @@ public class MainActivity<T> extends AppCompatActivity {
         executeDistinctOperator();
 
         executeSkipOperator();
+
+        executeWindowAggregation();
     }
 
     private void executeJustOperator() {
@@ -149,79 +161,37 @@ public class MainActivity<T> extends AppCompatActivity {
     }
 
     private void executeCreateOperator() {
-        // Create helps create an Observable from scratch by means of a function
-        // With this, we will have control over emission of data
-        Observable<Student> myObservable = Observable.create(new ObservableOnSubscribe<Student>() {
-            @Override
-            public void subscribe(ObservableEmitter<Student> emitter) throws Exception {
-                ArrayList<Student> studentArrayList = Student.getStudents();
-                for (Student student : studentArrayList) {
-                    emitter.onNext(student);
-                }
-                emitter.onComplete();
-            }
-        });
+        // The create, batched create, map and flatmap pipelines and their descriptions live in StudentPipelines,
+        // so they can be tested without an Activity
+        Observable<Student> myObservable = StudentPipelines.create(Student.getStudents());
         Observer myObserver = getObserver();
-        myObservable
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribeWith(myObserver);
+        myObservable.subscribeWith(myObserver);
+    }
+
+    private void executeBatchedCreateOperator() {
+        Observable<Student> myObservable = StudentPipelines.batchedCreate(Student.getStudents());
+        Observer myObserver = getObserver();
+        myObservable.subscribeWith(myObserver);
+    }
+
+    private void executeResilientCreateOperator() {
+        // Same as create, but with timeout, retry, circuit breaker, bulkhead and fallback to the last loaded students
+        // studentLoader is shared, so repeated loads see the same circuit breaker and cache
+        Observable<Student> myObservable = StudentPipelines.resilientCreate(Student.getStudents(), studentLoader);
+        Observer myObserver = getObserver();
+        myObservable.subscribeWith(myObserver);
     }
 
     private void executeMapOperator() {
-        // Map operator takes a data type and helps make operations over it
-        // Can can consume data in one form and emit data in another form, thus transforming it completely
-        Observable<Student> myObservable = Observable.create(new ObservableOnSubscribe<Student>() {
-            @Override
-            public void subscribe(ObservableEmitter<Student> emitter) throws Exception {
-                ArrayList<Student> studentArrayList = Student.getStudents();
-                for (Student student : studentArrayList) {
-                    emitter.onNext(student);
-                }
-                emitter.onComplete();
-            }
-        });
+        Observable<Student> myObservable = StudentPipelines.map(Student.getStudents());
         Observer myObserver = getObserver();
-        myObservable
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .map(new Function<Student, Student>() {
-                    @Override
-                    public Student apply(Student student) throws Exception {
-                        student.setName(student.getName().toUpperCase());
-                        student.setRegistrationDate("01/01/2019");
-                        return student;
-                    }
-                })
-                .subscribeWith(myObserver);
+        myObservable.subscribeWith(myObserver);
     }
 
     private void executeFlatmapOperator() {
-        // Flatmap operator takes a data type and emits Observable/Observer return type data
-        // Alternately, use concat map, if you want to maintain order of the emission
-        Observable<Student> myObservable = Observable.create(new ObservableOnSubscribe<Student>() {
-            @Override
-            public void subscribe(ObservableEmitter<Student> emitter) throws Exception {
-                ArrayList<Student> studentArrayList = Student.getStudents();
-                for (Student student : studentArrayList) {
-                    emitter.onNext(student);
-                }
-                emitter.onComplete();
-            }
-        });
+        Observable<Student> myObservable = StudentPipelines.flatMap(Student.getStudents());
         Observer myObserver = getObserver();
-        myObservable
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .flatMap(new Function<Student, Observable<Student>>() {
-                    @Override
-                    public Observable<Student> apply(Student student) throws Exception {
-                        student.setName(student.getName().toLowerCase());
-                        student.setRegistrationDate("NOT AVAILABLE");
-                        return Observable.just(student);
-                    }
-                })
-                .subscribeWith(myObserver);
+        myObservable.subscribeWith(myObserver);
     }
 
 
@@ -275,6 +245,33 @@ public class MainActivity<T> extends AppCompatActivity {
                 .subscribe(myObserver);
     }
 
+    private void executeWindowAggregation() {
+        // StudentWindowAggregator groups students by key into time windows and emits age statistics per window
+        // Here students are keyed by age group and windowed by the time at which they are emitted
+        Flowable<Student> myFlowable = Flowable.fromIterable(Student.getStudents());
+        Disposable disposable = myFlowable
+                .compose(StudentWindowAggregator.tumbling(new Function<Student, String>() {
+                    @Override
+                    public String apply(Student student) throws Exception {
+                        return student.getAge() >= 21 ? "21 and above" : "below 21";
+                    }
+                }, new Function<Student, Long>() {
+                    @Override
+                    public Long apply(Student student) throws Exception {
+                        return System.currentTimeMillis();
+                    }
+                }, 1, TimeUnit.SECONDS))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Consumer<WindowResult<String>>() {
+                    @Override
+                    public void accept(WindowResult<String> windowResult) throws Exception {
+                        Log.i(TAG, "window onNext " + windowResult);
+                    }
+                });
+        compositeDisposable.add(disposable);
+    }
+
     private Observer<T> getObserver() {
         return new Observer<T>() {
             @Override
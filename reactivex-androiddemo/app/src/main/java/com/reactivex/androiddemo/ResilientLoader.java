@@ -0,0 +1,291 @@
+package com.reactivex.androiddemo;
+
+import org.reactivestreams.Publisher;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.SingleSource;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Wraps a loader such as {@link StudentPipelines#load(List)} so that a failing or stuck dependency
+ * cannot hold threads or callers hostage.
+ * <p>
+ * Every call subscribes to the loader on the call scheduler and collects its items. On top of that:
+ * <ul>
+ * <li>Bulkhead: at most maxConcurrentCalls calls run at once, further calls fail right away with
+ * {@link BulkheadFullException} instead of taking another thread.</li>
+ * <li>Circuit breaker: after repeated failures calls fail right away with {@link CircuitOpenException},
+ * see {@link CircuitBreaker}.</li>
+ * <li>Timeout: a call that takes too long is disposed, which interrupts the thread it runs on. A loader
+ * that ignores the interrupt keeps its thread, but the default call scheduler only has maxConcurrentCalls
+ * threads, so stuck loaders can never take more than that.</li>
+ * <li>Retry: failed calls are retried after an exponentially growing delay with random jitter,
+ * so callers that failed together do not all retry at the same moment.</li>
+ * <li>Fallback: if the last attempt fails, the items of the last successful call are emitted instead.</li>
+ * </ul>
+ * Items are only emitted once a call has completed, so a failed attempt never emits a partial result.
+ * <p>
+ * One instance holds the breaker, bulkhead and cache for one dependency, so share it between the
+ * subscriptions to that dependency. Configure it before the first subscription; all time is taken
+ * from the configured schedulers, so a TestScheduler drives it in virtual time.
+ */
+public class ResilientLoader<T> implements ObservableTransformer<T, T> {
+
+    /**
+     * Thrown instead of calling the loader while the circuit is open.
+     */
+    public static final class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException() {
+            super("Circuit is open");
+        }
+    }
+
+    /**
+     * Thrown instead of calling the loader while maxConcurrentCalls calls are already running.
+     */
+    public static final class BulkheadFullException extends RuntimeException {
+        public BulkheadFullException(int maxConcurrentCalls) {
+            super("Already running " + maxConcurrentCalls + " calls");
+        }
+    }
+
+    // Created on first use with maxConcurrentCalls threads unless set through callScheduler(Scheduler)
+    private Scheduler callScheduler;
+    // The pool behind the default call scheduler, null when callScheduler(Scheduler) was set
+    private ThreadPoolExecutor callExecutor;
+    private Scheduler timerScheduler = Schedulers.computation();
+    private Random random = new Random();
+    private long timeoutMillis = 10000;
+    private int maxRetries = 3;
+    private long initialBackoffMillis = 100;
+    private long maxBackoffMillis = 5000;
+    private int maxConcurrentCalls = 4;
+    private CircuitBreaker circuitBreaker = new CircuitBreaker(5, 30000);
+
+    private final AtomicInteger runningCalls = new AtomicInteger();
+    private final AtomicReference<List<T>> lastResult = new AtomicReference<>();
+
+    /**
+     * Runs the loader. By default a pool of maxConcurrentCalls threads, so that loaders which ignore the
+     * interrupt sent on timeout can tie up at most that many threads. A call that finds every thread stuck
+     * waits in the pool's queue until it times out. Its cancelled task is then purged from the queue, so
+     * only calls still holding a bulkhead slot are queued.
+     */
+    public synchronized ResilientLoader<T> callScheduler(Scheduler callScheduler) {
+        this.callScheduler = callScheduler;
+        this.callExecutor = null;
+        return this;
+    }
+
+    /**
+     * Runs timeouts and retry delays and is the clock of the circuit breaker, computation by default.
+     */
+    public ResilientLoader<T> timerScheduler(Scheduler timerScheduler) {
+        this.timerScheduler = timerScheduler;
+        return this;
+    }
+
+    public ResilientLoader<T> timeout(long timeout, TimeUnit unit) {
+        this.timeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * The n-th retry waits between half and all of min(maxBackoff, initialBackoff * 2^(n-1)).
+     */
+    public ResilientLoader<T> retry(int maxRetries, long initialBackoff, long maxBackoff, TimeUnit unit) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = unit.toMillis(initialBackoff);
+        this.maxBackoffMillis = unit.toMillis(maxBackoff);
+        return this;
+    }
+
+    /**
+     * Source of the retry jitter, seed it for reproducible delays.
+     */
+    public ResilientLoader<T> jitter(Random random) {
+        this.random = random;
+        return this;
+    }
+
+    public ResilientLoader<T> circuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, unit.toMillis(openDuration));
+        return this;
+    }
+
+    public ResilientLoader<T> bulkhead(int maxConcurrentCalls) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        return this;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public ObservableSource<T> apply(final Observable<T> upstream) {
+        return Single.defer(new Callable<SingleSource<List<T>>>() {
+            @Override
+            public SingleSource<List<T>> call() throws Exception {
+                return attempt(upstream);
+            }
+        })
+                .retryWhen(new Function<Flowable<Throwable>, Publisher<Long>>() {
+                    @Override
+                    public Publisher<Long> apply(Flowable<Throwable> errors) throws Exception {
+                        return backoff(errors);
+                    }
+                })
+                .onErrorResumeNext(new Function<Throwable, SingleSource<List<T>>>() {
+                    @Override
+                    public SingleSource<List<T>> apply(Throwable throwable) throws Exception {
+                        List<T> cached = lastResult.get();
+                        return cached != null ? Single.just(cached) : Single.<List<T>>error(throwable);
+                    }
+                })
+                .flattenAsObservable(new Function<List<T>, Iterable<T>>() {
+                    @Override
+                    public Iterable<T> apply(List<T> items) throws Exception {
+                        return items;
+                    }
+                });
+    }
+
+    private Single<List<T>> attempt(Observable<T> upstream) {
+        if (!tryAcquireBulkhead()) {
+            return Single.error(new BulkheadFullException(maxConcurrentCalls));
+        }
+        final CircuitBreaker.Permit permit = circuitBreaker.tryAcquire(now());
+        if (permit == null) {
+            runningCalls.decrementAndGet();
+            return Single.error(new CircuitOpenException());
+        }
+        return upstream
+                .subscribeOn(callScheduler())
+                .toList()
+                .timeout(timeoutMillis, TimeUnit.MILLISECONDS, timerScheduler)
+                .doOnSuccess(new Consumer<List<T>>() {
+                    @Override
+                    public void accept(List<T> items) throws Exception {
+                        lastResult.set(Collections.unmodifiableList(items));
+                        circuitBreaker.onSuccess(permit);
+                    }
+                })
+                .doOnError(new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        circuitBreaker.onFailure(permit, now());
+                    }
+                })
+                .doOnDispose(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        circuitBreaker.onCancel(permit);
+                    }
+                })
+                .doFinally(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        runningCalls.decrementAndGet();
+                        purgeCancelledCalls();
+                    }
+                });
+    }
+
+    private Flowable<Long> backoff(Flowable<Throwable> errors) {
+        // Called once per subscription, so every subscription counts its own attempts
+        return errors.flatMap(new Function<Throwable, Publisher<Long>>() {
+            private int retries;
+
+            @Override
+            public Publisher<Long> apply(Throwable throwable) throws Exception {
+                // Rejections are cheap and retrying them only adds load, so they go straight to the fallback
+                if (throwable instanceof CircuitOpenException || throwable instanceof BulkheadFullException
+                        || ++retries > maxRetries) {
+                    return Flowable.error(throwable);
+                }
+                long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(retries - 1, 30));
+                long half = ceiling / 2;
+                long delay = half + (long) (random.nextDouble() * (ceiling - half + 1));
+                return Flowable.timer(delay, TimeUnit.MILLISECONDS, timerScheduler);
+            }
+        });
+    }
+
+    private boolean tryAcquireBulkhead() {
+        for (;;) {
+            int running = runningCalls.get();
+            if (running >= maxConcurrentCalls) {
+                return false;
+            }
+            if (runningCalls.compareAndSet(running, running + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Number of calls waiting for a thread of the default call scheduler, for tests.
+     */
+    synchronized int queuedCalls() {
+        return callExecutor == null ? 0 : callExecutor.getQueue().size();
+    }
+
+    private synchronized void purgeCancelledCalls() {
+        // Disposing a call cancels its Future, but the pool only drops it from the queue when a thread takes it,
+        // which never happens while every thread is stuck in a loader
+        if (callExecutor != null) {
+            callExecutor.purge();
+        }
+    }
+
+    private synchronized Scheduler callScheduler() {
+        if (callScheduler == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ResilientLoader-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            // Idle threads go away, so an unused loader holds none
+            executor.allowCoreThreadTimeOut(true);
+            callExecutor = executor;
+            callScheduler = Schedulers.from(executor);
+        }
+        return callScheduler;
+    }
+
+    private long now() {
+        return timerScheduler.now(TimeUnit.MILLISECONDS);
+    }
+}
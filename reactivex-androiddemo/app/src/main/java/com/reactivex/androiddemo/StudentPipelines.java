@@ -0,0 +1,104 @@
+package com.reactivex.androiddemo;
+
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * The Student pipelines demonstrated in MainActivity.
+ * <p>
+ * They take the students to emit as a parameter and do not depend on the Activity,
+ * so they can also be driven from plain JVM tests with the schedulers swapped through
+ * RxJavaPlugins and RxAndroidPlugins.
+ */
+public final class StudentPipelines {
+
+    private StudentPipelines() {
+    }
+
+    /**
+     * Create helps create an Observable from scratch by means of a function.
+     * With this, we will have control over emission of data.
+     */
+    public static Observable<Student> load(final List<Student> students) {
+        return Observable.create(new ObservableOnSubscribe<Student>() {
+            @Override
+            public void subscribe(ObservableEmitter<Student> emitter) throws Exception {
+                for (Student student : students) {
+                    emitter.onNext(student);
+                }
+                emitter.onComplete();
+            }
+        });
+    }
+
+    public static Observable<Student> create(List<Student> students) {
+        return load(students)
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * Same as create, but the load goes through a ResilientLoader that retries it, times it out,
+     * stops calling it while it keeps failing and falls back to the last roster it returned.
+     * ResilientLoader runs the load on io itself so that a stuck load can be interrupted.
+     */
+    public static Observable<Student> resilientCreate(List<Student> students, ResilientLoader<Student> resilientLoader) {
+        return load(students)
+                .compose(resilientLoader)
+                .observeOn(AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * Same as create, but students are handed to observeOn in batches.
+     * Each batch crosses from io to main thread in one hop and is unrolled into single students again.
+     */
+    public static Observable<Student> batchedCreate(final List<Student> students) {
+        return BatchedObservable.create(new BatchedObservable.OnSubscribe<Student>() {
+            @Override
+            public void subscribe(BatchEmitter<Student> emitter) throws Exception {
+                emitter.emitBatch(students);
+                emitter.onComplete();
+            }
+        })
+                .subscribeOn(Schedulers.io())
+                .compose(BatchedObservable.<Student>observeOnBatched(AndroidSchedulers.mainThread()));
+    }
+
+    /**
+     * Map operator takes a data type and helps make operations over it.
+     * It can consume data in one form and emit data in another form, thus transforming it completely.
+     */
+    public static Observable<Student> map(List<Student> students) {
+        return create(students)
+                .map(new Function<Student, Student>() {
+                    @Override
+                    public Student apply(Student student) throws Exception {
+                        student.setName(student.getName().toUpperCase());
+                        student.setRegistrationDate("01/01/2019");
+                        return student;
+                    }
+                });
+    }
+
+    /**
+     * Flatmap operator takes a data type and emits Observable/Observer return type data.
+     * Alternately, use concat map, if you want to maintain order of the emission.
+     */
+    public static Observable<Student> flatMap(List<Student> students) {
+        return create(students)
+                .flatMap(new Function<Student, Observable<Student>>() {
+                    @Override
+                    public Observable<Student> apply(Student student) throws Exception {
+                        student.setName(student.getName().toLowerCase());
+                        student.setRegistrationDate("NOT AVAILABLE");
+                        return Observable.just(student);
+                    }
+                });
+    }
+}
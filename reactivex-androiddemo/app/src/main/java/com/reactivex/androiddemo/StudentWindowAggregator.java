@@ -0,0 +1,344 @@
+package com.reactivex.androiddemo;
+
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.parallel.ParallelFlowable;
+
+/**
+ * Groups students by key into tumbling, sliding or session windows and emits the age statistics
+ * of every window once it is closed.
+ * <p>
+ * Time is taken from the students themselves through the timestamp selector. The watermark is the
+ * largest timestamp seen so far minus the allowed lateness: a window is emitted as soon as its end
+ * falls behind the watermark, and a student that only belongs to already emitted windows is late.
+ * Late students are dropped, or handed to the consumer passed to {@link #onLateEvent(Consumer)}.
+ * Whatever is still open when the source completes is emitted at the end.
+ * <p>
+ * Use it with {@code compose}:
+ * <pre>
+ * students.compose(StudentWindowAggregator.tumbling(keySelector, timestampSelector, 1, TimeUnit.MINUTES))
+ * </pre>
+ */
+public class StudentWindowAggregator<K> implements FlowableTransformer<Student, WindowResult<K>> {
+
+    private static final int TUMBLING = 0;
+    private static final int SLIDING = 1;
+    private static final int SESSION = 2;
+
+    private final Function<? super Student, K> keySelector;
+    private final Function<? super Student, Long> timestampSelector;
+    private final int type;
+    // Window length for tumbling and sliding windows, inactivity gap for session windows
+    private final long size;
+    private final long slide;
+    private final long allowedLateness;
+    private final Consumer<? super Student> lateEventHandler;
+
+    private StudentWindowAggregator(Function<? super Student, K> keySelector,
+                                    Function<? super Student, Long> timestampSelector,
+                                    int type, long size, long slide, long allowedLateness,
+                                    Consumer<? super Student> lateEventHandler) {
+        if (size <= 0 || slide <= 0) {
+            throw new IllegalArgumentException("size and slide must be positive");
+        }
+        if (slide > size) {
+            // Students falling between two windows would belong to none and be reported as late
+            throw new IllegalArgumentException("slide must not be larger than size");
+        }
+        if (allowedLateness < 0) {
+            throw new IllegalArgumentException("allowedLateness must not be negative");
+        }
+        this.keySelector = keySelector;
+        this.timestampSelector = timestampSelector;
+        this.type = type;
+        this.size = size;
+        this.slide = slide;
+        this.allowedLateness = allowedLateness;
+        this.lateEventHandler = lateEventHandler;
+    }
+
+    /**
+     * Fixed size windows that do not overlap. Every student belongs to exactly one window.
+     */
+    public static <K> StudentWindowAggregator<K> tumbling(Function<? super Student, K> keySelector,
+                                                          Function<? super Student, Long> timestampSelector,
+                                                          long size, TimeUnit unit) {
+        long millis = unit.toMillis(size);
+        return new StudentWindowAggregator<>(keySelector, timestampSelector, TUMBLING, millis, millis, 0, null);
+    }
+
+    /**
+     * Fixed size windows that start every {@code slide}. A student belongs to size / slide windows.
+     * The slide must not be larger than the size, otherwise windows would leave gaps.
+     */
+    public static <K> StudentWindowAggregator<K> sliding(Function<? super Student, K> keySelector,
+                                                         Function<? super Student, Long> timestampSelector,
+                                                         long size, long slide, TimeUnit unit) {
+        return new StudentWindowAggregator<>(keySelector, timestampSelector, SLIDING,
+                unit.toMillis(size), unit.toMillis(slide), 0, null);
+    }
+
+    /**
+     * Windows per key that stay open while students keep arriving less than {@code gap} apart.
+     */
+    public static <K> StudentWindowAggregator<K> session(Function<? super Student, K> keySelector,
+                                                         Function<? super Student, Long> timestampSelector,
+                                                         long gap, TimeUnit unit) {
+        long millis = unit.toMillis(gap);
+        return new StudentWindowAggregator<>(keySelector, timestampSelector, SESSION, millis, millis, 0, null);
+    }
+
+    /**
+     * Keeps windows open for {@code lateness} after their end, so out of order students still count.
+     */
+    public StudentWindowAggregator<K> allowedLateness(long lateness, TimeUnit unit) {
+        return new StudentWindowAggregator<>(keySelector, timestampSelector, type, size, slide,
+                unit.toMillis(lateness), lateEventHandler);
+    }
+
+    /**
+     * Receives students that arrive after all of their windows have been emitted.
+     */
+    public StudentWindowAggregator<K> onLateEvent(Consumer<? super Student> handler) {
+        return new StudentWindowAggregator<>(keySelector, timestampSelector, type, size, slide,
+                allowedLateness, handler);
+    }
+
+    @Override
+    public Publisher<WindowResult<K>> apply(final Flowable<Student> upstream) {
+        // Each subscriber gets its own window state
+        return Flowable.defer(new Callable<Publisher<WindowResult<K>>>() {
+            @Override
+            public Publisher<WindowResult<K>> call() throws Exception {
+                final State state = new State();
+                return upstream
+                        .concatMapIterable(new Function<Student, Iterable<WindowResult<K>>>() {
+                            @Override
+                            public Iterable<WindowResult<K>> apply(Student student) throws Exception {
+                                return state.onStudent(student);
+                            }
+                        })
+                        .concatWith(Flowable.defer(new Callable<Publisher<WindowResult<K>>>() {
+                            @Override
+                            public Publisher<WindowResult<K>> call() throws Exception {
+                                return Flowable.fromIterable(state.fire(Long.MAX_VALUE));
+                            }
+                        }));
+            }
+        });
+    }
+
+    /**
+     * Aggregates each rail separately and merges the partial windows once all rails complete.
+     * <p>
+     * Rails see an arbitrary subset of the students, so no rail can tell on its own when a window is
+     * closed. Windows are therefore only emitted at the end and late event handling does not apply.
+     */
+    public Flowable<WindowResult<K>> aggregate(ParallelFlowable<Student> rails) {
+        return rails
+                .reduce(new Callable<State>() {
+                    @Override
+                    public State call() throws Exception {
+                        return new State();
+                    }
+                }, new BiFunction<State, Student, State>() {
+                    @Override
+                    public State apply(State state, Student student) throws Exception {
+                        state.add(keySelector.apply(student), timestampSelector.apply(student),
+                                student.getAge(), Long.MIN_VALUE);
+                        return state;
+                    }
+                })
+                .reduce(new BiFunction<State, State, State>() {
+                    @Override
+                    public State apply(State first, State second) throws Exception {
+                        return first.merge(second);
+                    }
+                })
+                .flatMapIterable(new Function<State, Iterable<WindowResult<K>>>() {
+                    @Override
+                    public Iterable<WindowResult<K>> apply(State state) throws Exception {
+                        return state.fire(Long.MAX_VALUE);
+                    }
+                });
+    }
+
+    private static final class Pane {
+        long start;
+        long end;
+        final AgeStats stats = new AgeStats();
+
+        Pane(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        void absorb(Pane other) {
+            start = Math.min(start, other.start);
+            end = Math.max(end, other.end);
+            stats.merge(other.stats);
+        }
+    }
+
+    private final class State {
+        // Only open windows are kept, each holding a fixed size AgeStats
+        private final Map<K, List<Pane>> panes = new LinkedHashMap<>();
+        private long maxTimestamp = Long.MIN_VALUE;
+
+        List<WindowResult<K>> onStudent(Student student) throws Exception {
+            long timestamp = timestampSelector.apply(student);
+            if (!add(keySelector.apply(student), timestamp, student.getAge(), watermark())) {
+                if (lateEventHandler != null) {
+                    lateEventHandler.accept(student);
+                }
+            }
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            return fire(watermark());
+        }
+
+        private long watermark() {
+            return maxTimestamp == Long.MIN_VALUE ? Long.MIN_VALUE : maxTimestamp - allowedLateness;
+        }
+
+        /**
+         * @return false if every window of the student has already been emitted
+         */
+        boolean add(K key, long timestamp, int age, long watermark) {
+            List<Pane> keyPanes = panes.get(key);
+            if (keyPanes == null) {
+                keyPanes = new ArrayList<>();
+                panes.put(key, keyPanes);
+            }
+
+            if (type == SESSION) {
+                // An out of order student still joins a session that is open, even when its own gap has passed
+                if (timestamp + size <= watermark && !overlapsSession(keyPanes, timestamp, timestamp + size)) {
+                    return false;
+                }
+                Pane pane = new Pane(timestamp, timestamp + size);
+                pane.stats.add(age);
+                insertSession(keyPanes, pane);
+                return true;
+            }
+
+            long offset = timestamp % slide;
+            if (offset < 0) {
+                offset += slide;
+            }
+            boolean accepted = false;
+            for (long start = timestamp - offset; start > timestamp - size; start -= slide) {
+                if (start + size <= watermark) {
+                    // Windows starting earlier end earlier, so they are closed too
+                    break;
+                }
+                findOrCreate(keyPanes, start).stats.add(age);
+                accepted = true;
+            }
+            return accepted;
+        }
+
+        private Pane findOrCreate(List<Pane> keyPanes, long start) {
+            for (Pane pane : keyPanes) {
+                if (pane.start == start) {
+                    return pane;
+                }
+            }
+            Pane pane = new Pane(start, start + size);
+            keyPanes.add(pane);
+            return pane;
+        }
+
+        private boolean overlapsSession(List<Pane> keyPanes, long start, long end) {
+            for (Pane existing : keyPanes) {
+                if (existing.start < end && start < existing.end) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void insertSession(List<Pane> keyPanes, Pane pane) {
+            // Open sessions never overlap, so a single pass is enough to merge every session the new one touches
+            Iterator<Pane> iterator = keyPanes.iterator();
+            while (iterator.hasNext()) {
+                Pane existing = iterator.next();
+                if (existing.start < pane.end && pane.start < existing.end) {
+                    pane.absorb(existing);
+                    iterator.remove();
+                }
+            }
+            keyPanes.add(pane);
+        }
+
+        State merge(State other) {
+            for (Map.Entry<K, List<Pane>> entry : other.panes.entrySet()) {
+                List<Pane> keyPanes = panes.get(entry.getKey());
+                if (keyPanes == null) {
+                    panes.put(entry.getKey(), entry.getValue());
+                    continue;
+                }
+                for (Pane pane : entry.getValue()) {
+                    if (type == SESSION) {
+                        insertSession(keyPanes, pane);
+                    } else {
+                        findOrCreate(keyPanes, pane.start).stats.merge(pane.stats);
+                    }
+                }
+            }
+            maxTimestamp = Math.max(maxTimestamp, other.maxTimestamp);
+            return this;
+        }
+
+        /**
+         * Removes and returns every window that ends at or before the watermark, ordered by end.
+         */
+        List<WindowResult<K>> fire(long watermark) {
+            List<WindowResult<K>> results = Collections.emptyList();
+            Iterator<Map.Entry<K, List<Pane>>> keys = panes.entrySet().iterator();
+            while (keys.hasNext()) {
+                Map.Entry<K, List<Pane>> entry = keys.next();
+                Iterator<Pane> iterator = entry.getValue().iterator();
+                while (iterator.hasNext()) {
+                    Pane pane = iterator.next();
+                    if (pane.end <= watermark) {
+                        if (results.isEmpty()) {
+                            results = new ArrayList<>();
+                        }
+                        results.add(new WindowResult<>(entry.getKey(), pane.start, pane.end, pane.stats));
+                        iterator.remove();
+                    }
+                }
+                if (entry.getValue().isEmpty()) {
+                    keys.remove();
+                }
+            }
+            if (results.size() > 1) {
+                Collections.sort(results, new Comparator<WindowResult<K>>() {
+                    @Override
+                    public int compare(WindowResult<K> first, WindowResult<K> second) {
+                        if (first.getEnd() != second.getEnd()) {
+                            return first.getEnd() < second.getEnd() ? -1 : 1;
+                        }
+                        return first.getStart() < second.getStart() ? -1 : (first.getStart() == second.getStart() ? 0 : 1);
+                    }
+                });
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.reactivex.androiddemo;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Age statistics of all students of one key that fell into the window [start, end).
+ */
+public class WindowResult<K> {
+
+    private final K key;
+    private final long start;
+    private final long end;
+    private final AgeStats stats;
+
+    public WindowResult(K key, long start, long end, AgeStats stats) {
+        this.key = key;
+        this.start = start;
+        this.end = end;
+        this.stats = stats;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public AgeStats getStats() {
+        return stats;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "WindowResult of key-" + key
+                + " start-" + start
+                + " end-" + end
+                + " " + stats;
+    }
+}
@@ -0,0 +1,96 @@
+package com.reactivex.androiddemo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Times AdaptiveObserveOn against observeOn with the fixed default prefetch. Skipped unless enabled,
+ * e.g. ./gradlew test -Pbench.enabled=true
+ */
+public class AdaptiveObserveOnBenchmark {
+
+    private static final int WARM_UP_RUNS = 3;
+    private static final int RUNS = 11;
+
+    @Rule
+    public final RxJvmRule rxJvmRule = new RxJvmRule();
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("bench.enabled"));
+    }
+
+    @Test
+    public void steadyProducerIsFasterThanFixedObserveOn() {
+        long[] medians = medians(steady());
+
+        assertTrue("adaptive " + medians[1] + "ns, fixed " + medians[0] + "ns", medians[1] < medians[0]);
+    }
+
+    @Test
+    public void burstyProducerKeepsUpWithFixedObserveOn() {
+        // Most of the time goes into waiting for the next burst, so both are expected to end up level
+        long[] medians = medians(bursty());
+
+        assertTrue("adaptive " + medians[1] + "ns, fixed " + medians[0] + "ns", medians[1] <= medians[0] + medians[0] / 10);
+    }
+
+    /**
+     * @return median time of fixed and of adaptive observeOn, runs alternate so that both see the same noise
+     */
+    private static long[] medians(Flowable<Integer> source) {
+        long[] fixed = new long[RUNS];
+        long[] adaptive = new long[RUNS];
+        for (int run = -WARM_UP_RUNS; run < RUNS; run++) {
+            long fixedTime = time(source, fixed());
+            long adaptiveTime = time(source, new AdaptiveObserveOn<Integer>(Schedulers.single()));
+            if (run >= 0) {
+                fixed[run] = fixedTime;
+                adaptive[run] = adaptiveTime;
+            }
+        }
+        Arrays.sort(fixed);
+        Arrays.sort(adaptive);
+        return new long[]{fixed[RUNS / 2], adaptive[RUNS / 2]};
+    }
+
+    private static Flowable<Integer> steady() {
+        return Flowable.range(0, 1000000).subscribeOn(Schedulers.computation());
+    }
+
+    private static Flowable<Integer> bursty() {
+        return Flowable.range(0, 100).concatMap(new Function<Integer, Flowable<Integer>>() {
+            @Override
+            public Flowable<Integer> apply(Integer burst) throws Exception {
+                return Flowable.range(0, 5000).delaySubscription(1, TimeUnit.MILLISECONDS, Schedulers.computation());
+            }
+        });
+    }
+
+    private static FlowableTransformer<Integer, Integer> fixed() {
+        return new FlowableTransformer<Integer, Integer>() {
+            @Override
+            public Flowable<Integer> apply(Flowable<Integer> upstream) {
+                return upstream.observeOn(Schedulers.single());
+            }
+        };
+    }
+
+    private static long time(Flowable<Integer> source, FlowableTransformer<Integer, Integer> observeOn) {
+        long start = System.nanoTime();
+        source.compose(observeOn).blockingLast();
+        return System.nanoTime() - start;
+    }
+}
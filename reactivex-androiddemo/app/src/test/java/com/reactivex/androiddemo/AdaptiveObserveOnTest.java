@@ -0,0 +1,87 @@
+package com.reactivex.androiddemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subscribers.TestSubscriber;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveObserveOnTest {
+
+    @Rule
+    public final RxJvmRule rxJvmRule = new RxJvmRule();
+
+    @Test
+    public void prefetchGrowsToMaxForBulkLoads() {
+        // Range fills all demand right away, so the buffer is full every time the consumer asks for more
+        TestScheduler scheduler = new TestScheduler();
+        AdaptiveObserveOn<Integer> observeOn = new AdaptiveObserveOn<>(scheduler, 16, 1024);
+
+        TestSubscriber<Integer> subscriber = Flowable.range(0, 100000)
+                .compose(observeOn)
+                .test();
+        scheduler.triggerActions();
+
+        subscriber.assertComplete().assertValueCount(100000);
+        assertEquals(1024, observeOn.getCurrentPrefetch());
+    }
+
+    @Test
+    public void prefetchShrinksToMinForSlowTrickles() {
+        // Every item is consumed as soon as it arrives, so the consumer keeps finding the buffer empty
+        TestScheduler scheduler = new TestScheduler();
+        AdaptiveObserveOn<Integer> observeOn = new AdaptiveObserveOn<>(scheduler, 16, 1024);
+        PublishProcessor<Integer> source = PublishProcessor.create();
+
+        TestSubscriber<Integer> subscriber = source.compose(observeOn).test();
+        for (int i = 0; i < 1000; i++) {
+            source.onNext(i);
+            scheduler.triggerActions();
+        }
+        source.onComplete();
+        scheduler.triggerActions();
+
+        subscriber.assertComplete().assertValueCount(1000).assertNoErrors();
+        assertEquals(16, observeOn.getCurrentPrefetch());
+    }
+
+    @Test
+    public void honoursDownstreamRequestsAcrossThreads() {
+        TestSubscriber<Integer> subscriber = Flowable.range(0, 10000)
+                .subscribeOn(Schedulers.io())
+                .compose(new AdaptiveObserveOn<Integer>(Schedulers.single()))
+                .test(10);
+
+        subscriber.awaitCount(10);
+        subscriber.assertValueCount(10).assertNotComplete();
+
+        subscriber.requestMore(Long.MAX_VALUE);
+        subscriber.awaitDone(5, TimeUnit.SECONDS);
+        subscriber.assertComplete().assertValueCount(10000);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(Integer.valueOf(i), subscriber.values().get(i));
+        }
+    }
+
+    @Test
+    public void propagatesErrors() {
+        TestScheduler scheduler = new TestScheduler();
+        PublishProcessor<Integer> source = PublishProcessor.create();
+
+        TestSubscriber<Integer> subscriber = source.compose(new AdaptiveObserveOn<Integer>(scheduler)).test();
+        source.onNext(1);
+        source.onNext(2);
+        scheduler.triggerActions();
+        source.onError(new IllegalStateException());
+        scheduler.triggerActions();
+
+        subscriber.assertFailure(IllegalStateException.class, 1, 2);
+    }
+}
@@ -0,0 +1,156 @@
+package com.reactivex.androiddemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.*;
+
+public class BatchedObservableTest {
+
+    @Rule
+    public final RxJvmRule rxJvmRule = new RxJvmRule();
+
+    @Test
+    public void singleItemsAreGroupedIntoBatches() {
+        TestObserver<List<Integer>> observer = BatchedObservable.create(3, new BatchedObservable.OnSubscribe<Integer>() {
+            @Override
+            public void subscribe(BatchEmitter<Integer> emitter) throws Exception {
+                for (int i = 1; i <= 7; i++) {
+                    emitter.onNext(i);
+                }
+                emitter.onComplete();
+            }
+        }).test();
+
+        observer.assertResult(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6), Arrays.asList(7));
+    }
+
+    @Test
+    public void pendingItemsAreFlushedBeforeBatchAndError() {
+        final IllegalStateException error = new IllegalStateException();
+        TestObserver<List<Integer>> observer = BatchedObservable.create(10, new BatchedObservable.OnSubscribe<Integer>() {
+            @Override
+            public void subscribe(BatchEmitter<Integer> emitter) throws Exception {
+                emitter.onNext(1);
+                emitter.emitBatch(Arrays.asList(2, 3));
+                emitter.onNext(4);
+                emitter.onError(error);
+            }
+        }).test();
+
+        observer.assertFailure(IllegalStateException.class, Arrays.asList(1), Arrays.asList(2, 3), Arrays.asList(4));
+    }
+
+    @Test
+    public void disposingRunsCancellable() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        TestObserver<List<Integer>> observer = BatchedObservable.create(new BatchedObservable.OnSubscribe<Integer>() {
+            @Override
+            public void subscribe(BatchEmitter<Integer> emitter) throws Exception {
+                emitter.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() throws Exception {
+                        closed.set(true);
+                    }
+                });
+                emitter.onNext(1);
+            }
+        }).test();
+
+        assertFalse(closed.get());
+        observer.dispose();
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void observeOnBatchedUnrollsItemsInOrderOnConsumerThread() {
+        final List<Integer> roster = range(10000);
+        final Set<String> consumerThreads = Collections.synchronizedSet(new HashSet<String>());
+
+        TestObserver<Integer> observer = batched(roster)
+                .doOnNext(new Consumer<Integer>() {
+                    @Override
+                    public void accept(Integer item) throws Exception {
+                        consumerThreads.add(Thread.currentThread().getName());
+                    }
+                })
+                .test();
+
+        observer.awaitDone(5, TimeUnit.SECONDS);
+        observer.assertComplete().assertValueSequence(roster);
+        assertEquals(1, consumerThreads.size());
+        assertTrue(consumerThreads.iterator().next().startsWith("RxSingleScheduler"));
+    }
+
+    @Test
+    public void batchedPathIsFasterThanPlainObserveOn() {
+        // Best of several runs, so warm up and scheduling noise do not decide the outcome
+        final List<Integer> roster = range(1000000);
+        long plain = Long.MAX_VALUE;
+        long batched = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            plain(roster).blockingLast();
+            plain = Math.min(plain, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            batched(roster).blockingLast();
+            batched = Math.min(batched, System.nanoTime() - start);
+        }
+
+        assertTrue("batched " + batched + "ns, plain " + plain + "ns", batched < plain);
+    }
+
+    private static List<Integer> range(int count) {
+        List<Integer> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    private static Observable<Integer> plain(final List<Integer> items) {
+        return Observable.create(new ObservableOnSubscribe<Integer>() {
+            @Override
+            public void subscribe(ObservableEmitter<Integer> emitter) throws Exception {
+                for (Integer item : items) {
+                    emitter.onNext(item);
+                }
+                emitter.onComplete();
+            }
+        })
+                .subscribeOn(Schedulers.io())
+                .observeOn(Schedulers.single());
+    }
+
+    private static Observable<Integer> batched(final List<Integer> items) {
+        return BatchedObservable.create(new BatchedObservable.OnSubscribe<Integer>() {
+            @Override
+            public void subscribe(BatchEmitter<Integer> emitter) throws Exception {
+                for (Integer item : items) {
+                    emitter.onNext(item);
+                }
+                emitter.onComplete();
+            }
+        })
+                .subscribeOn(Schedulers.io())
+                .compose(BatchedObservable.<Integer>observeOnBatched(Schedulers.single()));
+    }
+}
@@ -0,0 +1,58 @@
+package com.reactivex.androiddemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private final CircuitBreaker breaker = new CircuitBreaker(2, 1000);
+
+    private void open() {
+        breaker.onFailure(breaker.tryAcquire(0), 0);
+        breaker.onFailure(breaker.tryAcquire(0), 0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void failedProbeReopens() {
+        open();
+        CircuitBreaker.Permit probe = breaker.tryAcquire(1000);
+        assertNotNull(probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onFailure(probe, 1500);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire(2499));
+        assertNotNull(breaker.tryAcquire(2500));
+    }
+
+    @Test
+    public void callStartedBeforeOpeningCannotCloseHalfOpenBreaker() {
+        CircuitBreaker.Permit stale = breaker.tryAcquire(0);
+        open();
+        CircuitBreaker.Permit probe = breaker.tryAcquire(1000);
+
+        breaker.onSuccess(stale);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onFailure(stale, 1000);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void cancelledStaleCallDoesNotAdmitSecondProbe() {
+        CircuitBreaker.Permit stale = breaker.tryAcquire(0);
+        open();
+        CircuitBreaker.Permit probe = breaker.tryAcquire(1000);
+
+        breaker.onCancel(stale);
+        assertNull(breaker.tryAcquire(1000));
+
+        breaker.onCancel(probe);
+        assertNotNull(breaker.tryAcquire(1000));
+    }
+}
@@ -0,0 +1,149 @@
+package com.reactivex.androiddemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.android.plugins.RxAndroidPlugins;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the StudentPipelines used by MainActivity on the JVM, with the Android main thread replaced by
+ * the single thread of {@link RxJvmRule}. Thresholds can be tuned through soak.* properties, see {@link SoakHarness.Config}.
+ */
+public class PipelineSoakTest {
+
+    private static final Function<List<Student>, Observable<Student>> CREATE = new Function<List<Student>, Observable<Student>>() {
+        @Override
+        public Observable<Student> apply(List<Student> students) throws Exception {
+            return StudentPipelines.create(students);
+        }
+    };
+
+    private static final Function<List<Student>, Observable<Student>> BATCHED_CREATE = new Function<List<Student>, Observable<Student>>() {
+        @Override
+        public Observable<Student> apply(List<Student> students) throws Exception {
+            return StudentPipelines.batchedCreate(students);
+        }
+    };
+
+    private static final Function<List<Student>, Observable<Student>> MAP = new Function<List<Student>, Observable<Student>>() {
+        @Override
+        public Observable<Student> apply(List<Student> students) throws Exception {
+            return StudentPipelines.map(students);
+        }
+    };
+
+    private static final Function<List<Student>, Observable<Student>> FLAT_MAP = new Function<List<Student>, Observable<Student>>() {
+        @Override
+        public Observable<Student> apply(List<Student> students) throws Exception {
+            return StudentPipelines.flatMap(students);
+        }
+    };
+
+    @Rule
+    public final RxJvmRule rxJvmRule = new RxJvmRule();
+
+    @Test
+    public void pipelinesDeliverSeededStudentsInOrderInVirtualTime() throws Exception {
+        final TestScheduler scheduler = new TestScheduler();
+        Function<Scheduler, Scheduler> toTestScheduler = new Function<Scheduler, Scheduler>() {
+            @Override
+            public Scheduler apply(Scheduler ignored) throws Exception {
+                return scheduler;
+            }
+        };
+        RxJavaPlugins.setIoSchedulerHandler(toTestScheduler);
+        RxAndroidPlugins.setMainThreadSchedulerHandler(toTestScheduler);
+
+        for (Function<List<Student>, Observable<Student>> pipeline : pipelines()) {
+            List<Student> students = new StudentGenerator(7).nextBatch(1000);
+            List<Student> expected = new StudentGenerator(7).nextBatch(1000);
+
+            TestObserver<Student> observer = pipeline.apply(students).test();
+            observer.assertNoValues();
+            scheduler.triggerActions();
+
+            observer.assertComplete().assertValueCount(expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Student student = observer.values().get(i);
+                assertEquals(i, StudentGenerator.sequenceOf(student));
+                assertEquals(expected.get(i).getAge(), student.getAge());
+            }
+        }
+    }
+
+    @Test
+    public void createPipelineStaysWithinThresholds() throws Exception {
+        soak("create", CREATE);
+    }
+
+    @Test
+    public void batchedCreatePipelineStaysWithinThresholds() throws Exception {
+        soak("batchedCreate", BATCHED_CREATE);
+    }
+
+    @Test
+    public void mapPipelineStaysWithinThresholds() throws Exception {
+        soak("map", MAP);
+    }
+
+    @Test
+    public void flatMapPipelineStaysWithinThresholds() throws Exception {
+        soak("flatMap", FLAT_MAP);
+    }
+
+    @Test
+    public void harnessReportsWorkersLeftUndisposed() throws Exception {
+        final List<Scheduler.Worker> leaked = new ArrayList<>();
+        Function<List<Student>, Observable<Student>> leaking = new Function<List<Student>, Observable<Student>>() {
+            @Override
+            public Observable<Student> apply(List<Student> students) throws Exception {
+                // A worker taken from io and not disposed, like a pipeline scheduling work by hand and forgetting it
+                leaked.add(Schedulers.io().createWorker());
+                return StudentPipelines.create(students);
+            }
+        };
+        SoakHarness.Config config = new SoakHarness.Config(1000, 100, 10, 42, 1000, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+        try {
+            SoakHarness.Report report = new SoakHarness(config).run("leaking", leaking);
+
+            assertTrue(report.toString(), report.terminated);
+            assertEquals(report.toString(), 10, report.leakedWorkers);
+        } finally {
+            // Hand the io threads back, so the other soak tests do not measure against them
+            for (Scheduler.Worker worker : leaked) {
+                worker.dispose();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<List<Student>, Observable<Student>>[] pipelines() {
+        return new Function[]{CREATE, BATCHED_CREATE, MAP, FLAT_MAP};
+    }
+
+    private static void soak(String name, Function<List<Student>, Observable<Student>> pipeline) throws Exception {
+        SoakHarness.Config config = SoakHarness.Config.fromSystemProperties();
+        SoakHarness.Report report = new SoakHarness(config).run(name, pipeline);
+
+        assertTrue(report.toString(), report.terminated);
+        assertEquals(report.toString(), 0, report.errors);
+        assertEquals(report.toString(), report.expected, report.delivered);
+        assertEquals(report.toString(), 0, report.leakedWorkers);
+        assertTrue(report.toString(), report.latencyPercentileMillis(99) <= config.maxP99LatencyMillis);
+        assertTrue(report.toString(), report.heapGrowthBytes <= config.maxHeapGrowthBytes);
+        assertTrue(report.toString(), report.threadGrowth <= config.maxThreadGrowth);
+    }
+}
@@ -0,0 +1,212 @@
+package com.reactivex.androiddemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.ObservableSource;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class ResilientLoaderTest {
+
+    @Rule
+    public final RxJvmRule rxJvmRule = new RxJvmRule();
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private ResilientLoader<Integer> loader() {
+        return new ResilientLoader<Integer>()
+                .callScheduler(scheduler)
+                .timerScheduler(scheduler)
+                .jitter(new Random(1))
+                .timeout(1, TimeUnit.SECONDS)
+                .retry(0, 100, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emits 1, 2, 3 on the calls listed in succeedingCalls (counted from 1), fails on all others.
+     */
+    private Observable<Integer> source(final int... succeedingCalls) {
+        return Observable.defer(new Callable<ObservableSource<Integer>>() {
+            @Override
+            public ObservableSource<Integer> call() throws Exception {
+                int call = calls.incrementAndGet();
+                for (int succeeding : succeedingCalls) {
+                    if (call == succeeding) {
+                        return Observable.just(1, 2, 3);
+                    }
+                }
+                return Observable.error(new IllegalStateException("call " + call));
+            }
+        });
+    }
+
+    @Test
+    public void retriesWithBackoffUntilCallSucceeds() {
+        ResilientLoader<Integer> loader = loader().retry(3, 100, 1000, TimeUnit.MILLISECONDS);
+
+        TestObserver<Integer> observer = source(3).compose(loader).test();
+        scheduler.triggerActions();
+        assertEquals(1, calls.get());
+
+        // First retry waits 50 to 100 ms, the second 100 to 200 ms
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        assertEquals(2, calls.get());
+        observer.assertNoValues();
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        assertEquals(3, calls.get());
+        observer.assertResult(1, 2, 3);
+    }
+
+    @Test
+    public void stuckCallTimesOutAndFallsBackToLastResult() {
+        ResilientLoader<Integer> loader = loader();
+        source(1).compose(loader).test();
+        scheduler.triggerActions();
+
+        TestObserver<Integer> observer = Observable.<Integer>never().compose(loader).test();
+        scheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS);
+        observer.assertEmpty();
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        observer.assertResult(1, 2, 3);
+    }
+
+    @Test
+    public void failsWithoutCachedResult() {
+        TestObserver<Integer> observer = Observable.<Integer>never().compose(loader()).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        observer.assertFailure(TimeoutException.class);
+    }
+
+    @Test
+    public void circuitOpensAfterThresholdAndClosesAfterSuccessfulProbe() {
+        ResilientLoader<Integer> loader = loader().circuitBreaker(2, 10, TimeUnit.SECONDS);
+        Observable<Integer> source = source(3);
+
+        source.compose(loader).test();
+        source.compose(loader).test();
+        scheduler.triggerActions();
+        assertEquals(CircuitBreaker.State.OPEN, loader.getCircuitState());
+
+        source.compose(loader).test().assertFailure(ResilientLoader.CircuitOpenException.class);
+        assertEquals(2, calls.get());
+
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+        TestObserver<Integer> probe = source.compose(loader).test();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, loader.getCircuitState());
+        // Only the probe may call the loader while half open
+        source.compose(loader).test().assertFailure(ResilientLoader.CircuitOpenException.class);
+        scheduler.triggerActions();
+
+        probe.assertResult(1, 2, 3);
+        assertEquals(CircuitBreaker.State.CLOSED, loader.getCircuitState());
+    }
+
+    @Test
+    public void failedProbeReopensCircuit() {
+        ResilientLoader<Integer> loader = loader().circuitBreaker(1, 10, TimeUnit.SECONDS);
+        Observable<Integer> source = source();
+
+        source.compose(loader).test();
+        scheduler.triggerActions();
+        assertEquals(CircuitBreaker.State.OPEN, loader.getCircuitState());
+
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+        TestObserver<Integer> probe = source.compose(loader).test();
+        scheduler.triggerActions();
+
+        probe.assertFailure(IllegalStateException.class);
+        assertEquals(CircuitBreaker.State.OPEN, loader.getCircuitState());
+        source.compose(loader).test().assertFailure(ResilientLoader.CircuitOpenException.class);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void loadersIgnoringInterruptsHoldNoMoreThreadsThanBulkhead() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final Set<Thread> loaderThreads = Collections.synchronizedSet(new HashSet<Thread>());
+        final AtomicInteger started = new AtomicInteger();
+        Observable<Integer> stuck = Observable.create(new ObservableOnSubscribe<Integer>() {
+            @Override
+            public void subscribe(ObservableEmitter<Integer> emitter) throws Exception {
+                loaderThreads.add(Thread.currentThread());
+                started.incrementAndGet();
+                // Keeps blocking when interrupted, like a loader stuck in non-interruptible I/O
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                emitter.onComplete();
+            }
+        });
+        // Default call scheduler, only the timers run in virtual time
+        ResilientLoader<Integer> loader = new ResilientLoader<Integer>()
+                .timerScheduler(scheduler)
+                .jitter(new Random(1))
+                .timeout(1, TimeUnit.SECONDS)
+                .retry(3, 100, 1000, TimeUnit.MILLISECONDS)
+                .circuitBreaker(100, 10, TimeUnit.SECONDS)
+                .bulkhead(2);
+
+        List<TestObserver<Integer>> observers = new ArrayList<>();
+        try {
+            for (int round = 0; round < 20; round++) {
+                observers.add(stuck.compose(loader).test());
+                observers.add(stuck.compose(loader).test());
+                // Give the pool threads time to pick up the calls before their timeouts fire
+                Thread.sleep(20);
+                scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            }
+            for (int i = 0; i < 10; i++) {
+                Thread.sleep(20);
+                scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            }
+
+            assertEquals(2, started.get());
+            assertEquals(2, loaderThreads.size());
+            // Timed out calls do not stay behind in the pool's queue
+            assertEquals(0, loader.queuedCalls());
+            for (TestObserver<Integer> observer : observers) {
+                observer.assertTerminated().assertNoValues();
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void bulkheadRejectsCallsBeyondLimit() {
+        ResilientLoader<Integer> loader = loader().bulkhead(1);
+
+        TestObserver<Integer> running = Observable.<Integer>never().compose(loader).test();
+        Observable.just(1).compose(loader).test().assertFailure(ResilientLoader.BulkheadFullException.class);
+
+        running.dispose();
+        TestObserver<Integer> next = Observable.just(1).compose(loader).test();
+        scheduler.triggerActions();
+        next.assertResult(1);
+    }
+}
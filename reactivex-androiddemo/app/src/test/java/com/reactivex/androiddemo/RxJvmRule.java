@@ -0,0 +1,48 @@
+package com.reactivex.androiddemo;
+
+import org.junit.rules.ExternalResource;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import io.reactivex.Scheduler;
+import io.reactivex.android.plugins.RxAndroidPlugins;
+import io.reactivex.functions.Function;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Lets JVM tests use AndroidSchedulers and resets the scheduler hooks they install after every test.
+ * <p>
+ * There is no Looper on the JVM, so the main thread scheduler is replaced by a single daemon thread
+ * before AndroidSchedulers is first used. AndroidSchedulers reads the init handler only once per JVM,
+ * so every test class touching Rx should use this rule, and the thread lives as long as the JVM.
+ */
+public class RxJvmRule extends ExternalResource {
+
+    private static final Scheduler MAIN_THREAD = Schedulers.from(Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jvm-main");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }));
+
+    static {
+        RxAndroidPlugins.setInitMainThreadSchedulerHandler(new Function<Callable<Scheduler>, Scheduler>() {
+            @Override
+            public Scheduler apply(Callable<Scheduler> scheduler) throws Exception {
+                return MAIN_THREAD;
+            }
+        });
+    }
+
+    @Override
+    protected void after() {
+        // Only the per test handlers, the init handler has to stay for classes that initialise later
+        RxJavaPlugins.reset();
+        RxAndroidPlugins.setMainThreadSchedulerHandler(null);
+    }
+}
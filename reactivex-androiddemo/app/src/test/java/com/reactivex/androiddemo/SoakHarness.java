@@ -0,0 +1,315 @@
+package com.reactivex.androiddemo;
+
+import androidx.annotation.NonNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.android.plugins.RxAndroidPlugins;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Drives a Student pipeline with seeded synthetic students at a fixed rate and measures what it costs.
+ * <p>
+ * Every tick a new batch is generated and a new subscription to the pipeline is made, the same way
+ * MainActivity subscribes. The ticks are spaced so that the batches add up to exactly the configured rate.
+ * Once all subscriptions have terminated the harness reports latency from generation to delivery, heap and
+ * thread growth, and scheduler workers the pipelines created but never disposed.
+ */
+class SoakHarness {
+
+    static final class Config {
+        final int ratePerSecond;
+        final long durationMillis;
+        final int batchSize;
+        final long seed;
+        final long maxP99LatencyMillis;
+        final long maxHeapGrowthBytes;
+        final int maxThreadGrowth;
+
+        Config(int ratePerSecond, long durationMillis, int batchSize, long seed,
+               long maxP99LatencyMillis, long maxHeapGrowthBytes, int maxThreadGrowth) {
+            if (ratePerSecond <= 0 || durationMillis <= 0 || batchSize <= 0) {
+                throw new IllegalArgumentException("ratePerSecond, durationMillis and batchSize must be positive");
+            }
+            if (ratePerSecond * durationMillis < 1000) {
+                throw new IllegalArgumentException("ratePerSecond " + ratePerSecond + " produces no student in "
+                        + durationMillis + " ms");
+            }
+            this.ratePerSecond = ratePerSecond;
+            this.durationMillis = durationMillis;
+            this.batchSize = batchSize;
+            this.seed = seed;
+            this.maxP99LatencyMillis = maxP99LatencyMillis;
+            this.maxHeapGrowthBytes = maxHeapGrowthBytes;
+            this.maxThreadGrowth = maxThreadGrowth;
+        }
+
+        /**
+         * Reads soak.* system properties, e.g. ./gradlew test -Psoak.durationMillis=60000
+         */
+        static Config fromSystemProperties() {
+            return new Config(
+                    Integer.getInteger("soak.ratePerSecond", 2000),
+                    Long.getLong("soak.durationMillis", 1000),
+                    Integer.getInteger("soak.batchSize", 20),
+                    Long.getLong("soak.seed", 42),
+                    Long.getLong("soak.maxP99LatencyMillis", 250),
+                    Long.getLong("soak.maxHeapGrowthBytes", 32L * 1024 * 1024),
+                    Integer.getInteger("soak.maxThreadGrowth", 16));
+        }
+    }
+
+    static final class Report {
+        final String pipeline;
+        final int expected;
+        final int delivered;
+        final int errors;
+        final boolean terminated;
+        final int leakedWorkers;
+        final long heapGrowthBytes;
+        final int threadGrowth;
+        private final long[] sortedLatenciesNanos;
+
+        Report(String pipeline, int expected, int delivered, int errors, boolean terminated, int leakedWorkers,
+               long heapGrowthBytes, int threadGrowth, long[] sortedLatenciesNanos) {
+            this.pipeline = pipeline;
+            this.expected = expected;
+            this.delivered = delivered;
+            this.errors = errors;
+            this.terminated = terminated;
+            this.leakedWorkers = leakedWorkers;
+            this.heapGrowthBytes = heapGrowthBytes;
+            this.threadGrowth = threadGrowth;
+            this.sortedLatenciesNanos = sortedLatenciesNanos;
+        }
+
+        long latencyPercentileMillis(double percentile) {
+            if (sortedLatenciesNanos.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sortedLatenciesNanos.length);
+            return TimeUnit.NANOSECONDS.toMillis(sortedLatenciesNanos[Math.max(0, rank - 1)]);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Report of pipeline-" + pipeline
+                    + " delivered-" + delivered + "/" + expected
+                    + " errors-" + errors
+                    + " terminated-" + terminated
+                    + " leakedWorkers-" + leakedWorkers
+                    + " heapGrowthBytes-" + heapGrowthBytes
+                    + " threadGrowth-" + threadGrowth
+                    + " p50Millis-" + latencyPercentileMillis(50)
+                    + " p99Millis-" + latencyPercentileMillis(99)
+                    + " maxMillis-" + latencyPercentileMillis(100);
+        }
+    }
+
+    // Extra time granted for the last subscriptions to drain after the load stops
+    private static final long DRAIN_TIMEOUT_MILLIS = 10000;
+    // Workers are disposed right after the terminal event is delivered, so give them a moment to catch up
+    private static final long WORKER_DISPOSE_TIMEOUT_MILLIS = 1000;
+
+    private final Config config;
+
+    SoakHarness(Config config) {
+        this.config = config;
+    }
+
+    Report run(String name, Function<List<Student>, Observable<Student>> pipeline) throws Exception {
+        int expected = (int) (config.ratePerSecond * config.durationMillis / 1000);
+        // The last batch may be smaller, so the rate is honoured exactly
+        int ticks = (expected + config.batchSize - 1) / config.batchSize;
+        long tickNanos = TimeUnit.SECONDS.toNanos(1) * config.batchSize / config.ratePerSecond;
+
+        final long[] generatedAt = new long[expected];
+        final long[] latencies = new long[expected];
+        Arrays.fill(latencies, -1);
+        final AtomicInteger delivered = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch terminatedLatch = new CountDownLatch(ticks);
+        StudentGenerator generator = new StudentGenerator(config.seed);
+        WorkerCounter workers = new WorkerCounter();
+
+        long heapBefore = usedHeap();
+        int threadsBefore = threadCount();
+
+        boolean terminated;
+        int leakedWorkers;
+        workers.install();
+        try {
+            long start = System.nanoTime();
+            for (int tick = 0; tick < ticks; tick++) {
+                long sleep = start + tick * tickNanos - System.nanoTime();
+                if (sleep > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                }
+                List<Student> batch = generator.nextBatch(Math.min(config.batchSize, expected - tick * config.batchSize));
+                long now = System.nanoTime();
+                for (Student student : batch) {
+                    generatedAt[StudentGenerator.sequenceOf(student)] = now;
+                }
+                pipeline.apply(batch).subscribe(new Consumer<Student>() {
+                    @Override
+                    public void accept(Student student) throws Exception {
+                        int sequence = StudentGenerator.sequenceOf(student);
+                        latencies[sequence] = System.nanoTime() - generatedAt[sequence];
+                        delivered.incrementAndGet();
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        errors.incrementAndGet();
+                        terminatedLatch.countDown();
+                    }
+                }, new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        terminatedLatch.countDown();
+                    }
+                });
+            }
+            terminated = terminatedLatch.await(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            leakedWorkers = workers.awaitUndisposed(WORKER_DISPOSE_TIMEOUT_MILLIS);
+        } finally {
+            workers.uninstall();
+        }
+
+        Arrays.sort(latencies);
+        int undelivered = 0;
+        while (undelivered < latencies.length && latencies[undelivered] < 0) {
+            undelivered++;
+        }
+        long[] sorted = Arrays.copyOfRange(latencies, undelivered, latencies.length);
+        return new Report(name, expected, delivered.get(), errors.get(), terminated, leakedWorkers,
+                usedHeap() - heapBefore, threadCount() - threadsBefore, sorted);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static int threadCount() {
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    /**
+     * Wraps the io, computation and main thread schedulers while installed and counts the workers
+     * created on them against the workers disposed. Operators dispose their worker once they terminate
+     * or are disposed, so a worker still undisposed after every subscription terminated has leaked.
+     */
+    private static final class WorkerCounter {
+        private final AtomicInteger created = new AtomicInteger();
+        private final AtomicInteger disposed = new AtomicInteger();
+        private Function<? super Scheduler, ? extends Scheduler> previousIo;
+        private Function<? super Scheduler, ? extends Scheduler> previousComputation;
+        private Function<Scheduler, Scheduler> previousMainThread;
+
+        void install() {
+            previousIo = RxJavaPlugins.getIoSchedulerHandler();
+            previousComputation = RxJavaPlugins.getComputationSchedulerHandler();
+            previousMainThread = RxAndroidPlugins.getOnMainThreadSchedulerHandler();
+            RxJavaPlugins.setIoSchedulerHandler(counting(previousIo));
+            RxJavaPlugins.setComputationSchedulerHandler(counting(previousComputation));
+            RxAndroidPlugins.setMainThreadSchedulerHandler(counting(previousMainThread));
+        }
+
+        void uninstall() {
+            RxJavaPlugins.setIoSchedulerHandler(previousIo);
+            RxJavaPlugins.setComputationSchedulerHandler(previousComputation);
+            RxAndroidPlugins.setMainThreadSchedulerHandler(previousMainThread);
+        }
+
+        /**
+         * @return the number of workers still undisposed once the timeout elapsed
+         */
+        int awaitUndisposed(long timeoutMillis) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (created.get() != disposed.get() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return created.get() - disposed.get();
+        }
+
+        private Function<Scheduler, Scheduler> counting(final Function<? super Scheduler, ? extends Scheduler> previous) {
+            return new Function<Scheduler, Scheduler>() {
+                @Override
+                public Scheduler apply(Scheduler scheduler) throws Exception {
+                    return new CountingScheduler(previous == null ? scheduler : previous.apply(scheduler));
+                }
+            };
+        }
+
+        private final class CountingScheduler extends Scheduler {
+            private final Scheduler delegate;
+
+            CountingScheduler(Scheduler delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public long now(@NonNull TimeUnit unit) {
+                return delegate.now(unit);
+            }
+
+            @NonNull
+            @Override
+            public Worker createWorker() {
+                created.incrementAndGet();
+                return new CountingWorker(delegate.createWorker());
+            }
+        }
+
+        private final class CountingWorker extends Scheduler.Worker {
+            private final Scheduler.Worker delegate;
+            private final AtomicBoolean once = new AtomicBoolean();
+
+            CountingWorker(Scheduler.Worker delegate) {
+                this.delegate = delegate;
+            }
+
+            @NonNull
+            @Override
+            public Disposable schedule(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+                return delegate.schedule(run, delay, unit);
+            }
+
+            @Override
+            public long now(@NonNull TimeUnit unit) {
+                return delegate.now(unit);
+            }
+
+            @Override
+            public void dispose() {
+                if (once.compareAndSet(false, true)) {
+                    disposed.incrementAndGet();
+                }
+                delegate.dispose();
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return delegate.isDisposed();
+            }
+        }
+    }
+}
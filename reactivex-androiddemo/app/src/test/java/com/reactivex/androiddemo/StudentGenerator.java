@@ -0,0 +1,42 @@
+package com.reactivex.androiddemo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Produces the same sequence of synthetic students for the same seed.
+ * <p>
+ * Every student is named "student-&lt;sequence&gt;", so it can be traced through pipelines that change the case of the name.
+ */
+class StudentGenerator {
+
+    private final Random random;
+    private int sequence;
+
+    StudentGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    Student next() {
+        Student student = new Student();
+        student.setName("student-" + sequence);
+        student.setEmail("student" + sequence + "@gmail.com");
+        student.setAge(17 + random.nextInt(14));
+        sequence++;
+        return student;
+    }
+
+    List<Student> nextBatch(int size) {
+        List<Student> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(next());
+        }
+        return batch;
+    }
+
+    static int sequenceOf(Student student) {
+        String name = student.getName();
+        return Integer.parseInt(name.substring(name.lastIndexOf('-') + 1));
+    }
+}
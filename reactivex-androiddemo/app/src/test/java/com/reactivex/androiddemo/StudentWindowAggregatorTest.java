@@ -0,0 +1,183 @@
+package com.reactivex.androiddemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+
+import static org.junit.Assert.*;
+
+public class StudentWindowAggregatorTest {
+
+    @Rule
+    public final RxJvmRule rxJvmRule = new RxJvmRule();
+
+    private final Map<Student, Long> timestamps = new IdentityHashMap<>();
+
+    private final Function<Student, String> byName = new Function<Student, String>() {
+        @Override
+        public String apply(Student student) throws Exception {
+            return student.getName();
+        }
+    };
+
+    private final Function<Student, Long> byTimestamp = new Function<Student, Long>() {
+        @Override
+        public Long apply(Student student) throws Exception {
+            return timestamps.get(student);
+        }
+    };
+
+    private Student student(String name, int age, long timestamp) {
+        Student student = new Student();
+        student.setName(name);
+        student.setAge(age);
+        timestamps.put(student, timestamp);
+        return student;
+    }
+
+    @Test
+    public void tumblingWindowsEmitWhenWatermarkPasses() {
+        TestSubscriber<WindowResult<String>> subscriber = Flowable.just(
+                student("a", 20, 0), student("a", 30, 500), student("a", 40, 1000), student("a", 50, 2500))
+                .compose(StudentWindowAggregator.tumbling(byName, byTimestamp, 1, TimeUnit.SECONDS))
+                .test();
+
+        subscriber.assertComplete().assertValueCount(3);
+        AgeStats first = subscriber.values().get(0).getStats();
+        assertEquals(0, subscriber.values().get(0).getStart());
+        assertEquals(2, first.getCount());
+        assertEquals(20, first.getMin());
+        assertEquals(30, first.getMax());
+        assertEquals(25.0, first.getMean(), 0.0001);
+        assertEquals(20, first.getPercentile(50));
+        assertEquals(1000, subscriber.values().get(1).getStart());
+        assertEquals(2000, subscriber.values().get(2).getStart());
+    }
+
+    @Test
+    public void slidingWindowsCountStudentInEveryOverlappingWindow() {
+        TestSubscriber<WindowResult<String>> subscriber = Flowable.just(student("a", 20, 1500))
+                .compose(StudentWindowAggregator.sliding(byName, byTimestamp, 2, 1, TimeUnit.SECONDS))
+                .test();
+
+        subscriber.assertComplete().assertValueCount(2);
+        assertEquals(0, subscriber.values().get(0).getStart());
+        assertEquals(1000, subscriber.values().get(1).getStart());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void slidingWindowsRejectSlideLargerThanSize() {
+        StudentWindowAggregator.sliding(byName, byTimestamp, 1, 2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void sessionWindowsMergeStudentsWithinGap() {
+        TestSubscriber<WindowResult<String>> subscriber = Flowable.just(
+                student("a", 20, 0), student("a", 22, 800), student("b", 30, 900), student("a", 24, 5000))
+                .compose(StudentWindowAggregator.session(byName, byTimestamp, 1, TimeUnit.SECONDS))
+                .test();
+
+        subscriber.assertComplete().assertValueCount(3);
+        WindowResult<String> first = subscriber.values().get(0);
+        assertEquals("a", first.getKey());
+        assertEquals(0, first.getStart());
+        assertEquals(1800, first.getEnd());
+        assertEquals(2, first.getStats().getCount());
+        assertEquals("b", subscriber.values().get(1).getKey());
+    }
+
+    @Test
+    public void outOfOrderStudentJoinsSessionThatIsStillOpen() {
+        final List<Student> late = new ArrayList<>();
+        StudentWindowAggregator<String> aggregator = StudentWindowAggregator
+                .session(byName, byTimestamp, 1, TimeUnit.SECONDS)
+                .onLateEvent(new Consumer<Student>() {
+                    @Override
+                    public void accept(Student student) throws Exception {
+                        late.add(student);
+                    }
+                });
+
+        TestSubscriber<WindowResult<String>> subscriber = Flowable.just(
+                student("a", 20, 0), student("a", 22, 800), student("a", 24, 1700), student("a", 26, 500))
+                .compose(aggregator)
+                .test();
+
+        subscriber.assertComplete().assertValueCount(1);
+        WindowResult<String> session = subscriber.values().get(0);
+        assertEquals(0, session.getStart());
+        assertEquals(2700, session.getEnd());
+        assertEquals(4, session.getStats().getCount());
+        assertTrue(late.isEmpty());
+    }
+
+    @Test
+    public void lateStudentsAreHandedToHandlerOutsideAllowedLateness() {
+        final List<Student> late = new ArrayList<>();
+        StudentWindowAggregator<String> aggregator = StudentWindowAggregator
+                .tumbling(byName, byTimestamp, 1, TimeUnit.SECONDS)
+                .allowedLateness(500, TimeUnit.MILLISECONDS)
+                .onLateEvent(new Consumer<Student>() {
+                    @Override
+                    public void accept(Student student) throws Exception {
+                        late.add(student);
+                    }
+                });
+
+        Student tooLate = student("a", 40, 100);
+        TestSubscriber<WindowResult<String>> subscriber = Flowable.just(
+                student("a", 20, 0), student("a", 30, 1200), student("a", 35, 900), student("a", 50, 1600), tooLate)
+                .compose(aggregator)
+                .test();
+
+        subscriber.assertComplete().assertValueCount(2);
+        assertEquals(2, subscriber.values().get(0).getStats().getCount());
+        assertEquals(1, late.size());
+        assertSame(tooLate, late.get(0));
+    }
+
+    @Test
+    public void parallelRailsMergeToSameResultAsSequential() {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            students.add(student(i % 2 == 0 ? "even" : "odd", 18 + i % 10, i * 10L));
+        }
+        StudentWindowAggregator<String> aggregator =
+                StudentWindowAggregator.tumbling(byName, byTimestamp, 1, TimeUnit.SECONDS);
+
+        List<WindowResult<String>> sequential = Flowable.fromIterable(students)
+                .compose(aggregator)
+                .toList()
+                .blockingGet();
+        List<WindowResult<String>> parallel = aggregator
+                .aggregate(Flowable.fromIterable(students).parallel(4).runOn(Schedulers.computation()))
+                .toList()
+                .blockingGet();
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getEnd(), parallel.get(i).getEnd());
+            assertEquals(sequential.get(i).getStats().toString(), findStats(parallel, sequential.get(i)).toString());
+        }
+    }
+
+    private AgeStats findStats(List<WindowResult<String>> results, WindowResult<String> expected) {
+        for (WindowResult<String> result : results) {
+            if (result.getKey().equals(expected.getKey()) && result.getStart() == expected.getStart()) {
+                return result.getStats();
+            }
+        }
+        throw new AssertionError("missing window " + expected);
+    }
+}